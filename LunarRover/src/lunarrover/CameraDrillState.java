@@ -9,8 +9,15 @@ package lunarrover;
  * @author demi
  */
 public enum CameraDrillState {
-    IDLE,
-    COLOR_CAMERA,
-    CAMERA_16MM,
-    DRILL
+    IDLE(null),
+    COLOR_CAMERA(DeviceConfig.Kind.CAMERA),
+    CAMERA_16MM(DeviceConfig.Kind.CAMERA),
+    DRILL(DeviceConfig.Kind.DRILL);
+    
+    // Kind of device owning this state, null for IDLE
+    final DeviceConfig.Kind kind;
+    
+    CameraDrillState(DeviceConfig.Kind kind) {
+        this.kind = kind;
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package lunarrover;
+
+/**
+ * One camera/drill device slot: which CAMERA_DRILL state it owns, which
+ * IDLE gesture enters it, and the label used in log output. Adding an
+ * instrument is a new CameraDrillState constant (with its kind) plus a
+ * config entry; the fleet index and scenario runner pick it up from the
+ * enum.
+ *
+ * @author demi
+ */
+public final class DeviceConfig {
+    public enum Kind {
+        CAMERA(CameraSubState.values()),
+        DRILL(DrillSubState.values());
+
+        // Sub states of this kind; ordinal 0 is the reset state
+        final Enum<?>[] subStates;
+
+        Kind(Enum<?>[] subStates) {
+            // Each device's sub state is packed into SUB_STATE_BITS of one long
+            if (subStates.length > 1 << LunarRoverStateMachine.SUB_STATE_BITS) {
+                throw new IllegalArgumentException(name() + " has " + subStates.length + " sub states, at most "
+                        + (1 << LunarRoverStateMachine.SUB_STATE_BITS) + " fit in a device slot");
+            }
+            this.subStates = subStates;
+        }
+    }
+
+    final CameraDrillState state;
+    final PedalEvent entryGesture;
+    final Kind kind;
+    final String label;
+
+    // Log lines, built once so the handlers never concatenate
+    final String enteredMsg;
+    final String returnedMsg;
+    final String takingPictureMsg;
+    final String pictureTakenMsg;
+    final String temporizerMsg;
+    final String timerExpiredMsg;
+    final String ignoredReadyMsg;
+    final String waitingMsg;
+    final String busyMsg;
+    final String autoDisabledMsg;
+    final String turnedOnMsg;
+    final String turnedOffMsg;
+    final String ignoredMsg;
+
+    public DeviceConfig(CameraDrillState state, PedalEvent entryGesture, Kind kind, String label) {
+        if (state == CameraDrillState.IDLE) {
+            throw new IllegalArgumentException("IDLE is not a device state");
+        }
+        if (kind != state.kind) {
+            throw new IllegalArgumentException(state + " is a " + state.kind + " state, not " + kind);
+        }
+        if (entryGesture == PedalEvent.SWITCH_FLIPPED) {
+            throw new IllegalArgumentException("SWITCH_FLIPPED is reserved for mode switching");
+        }
+        this.state = state;
+        this.entryGesture = entryGesture;
+        this.kind = kind;
+        this.label = label;
+
+        enteredMsg = "==> Entered " + label.toUpperCase() + " mode";
+        returnedMsg = "==> Returned to IDLE from " + label;
+        takingPictureMsg = "==> " + label + ": Taking picture...";
+        pictureTakenMsg = "==> " + label + ": Picture taken, ready";
+        temporizerMsg = "==> " + label + ": Temporizer activated (selfie mode)";
+        timerExpiredMsg = "==> " + label + ": Timer expired, taking picture...";
+        ignoredReadyMsg = "--- Event ignored in " + label + " READY";
+        waitingMsg = "--- Waiting for timer in " + label;
+        busyMsg = "--- " + label + " busy taking picture";
+        autoDisabledMsg = "==> " + label + " auto-disabled on exit";
+        turnedOnMsg = "==> " + label + ": Turned ON";
+        turnedOffMsg = "==> " + label + ": Turned OFF";
+        ignoredMsg = "--- Event ignored in " + state + " state";
+    }
+
+    // Default mapping from the README control table
+    public static DeviceConfig[] defaults() {
+        return new DeviceConfig[] {
+            new DeviceConfig(CameraDrillState.COLOR_CAMERA, PedalEvent.LEFT_HELD_5S, Kind.CAMERA, "Color Camera"),
+            new DeviceConfig(CameraDrillState.CAMERA_16MM, PedalEvent.LEFT_HELD_10S, Kind.CAMERA, "16mm Camera"),
+            new DeviceConfig(CameraDrillState.DRILL, PedalEvent.LEFT_DOUBLE_PRESS, Kind.DRILL, "Drill")
+        };
+    }
+}
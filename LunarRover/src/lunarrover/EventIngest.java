@@ -0,0 +1,168 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package lunarrover;
+
+/**
+ * Ingest stage in front of one state machine. Events are judged against
+ * a projection of the rover as it will be once everything queued has
+ * been delivered, so dropping never changes the outcome:
+ * <ul>
+ * <li>events that are no-ops for the projected state are dropped. A
+ *     repeat of the low-priority event dropped last is dropped without
+ *     consulting the projection, since nothing was accepted in between;</li>
+ * <li>in MOVEMENT mode a brake overtakes queued pedal input. That input
+ *     is movement the brake is meant to stop, so it is cancelled and
+ *     reported to cancel listeners, and the brake is delivered next;</li>
+ * <li>mode switches and device exits keep their place behind queued
+ *     input, since overtaking would change what that input does (a
+ *     picture must be taken before the exit, a switch behind queued
+ *     movement must be judged at the speed that movement leaves,
+ *     Assumption #8);</li>
+ * <li>brake, exit and switch events are never rejected. The lane for
+ *     other input is bounded; overflowing offers are rejected.</li>
+ * </ul>
+ * Every accepted event reaches the rover in the order it was offered,
+ * unless a later brake cancels it.
+ *
+ * The ingest must be the rover's only input, and like the state machine
+ * itself it is not thread-safe.
+ *
+ * @author demi
+ */
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class EventIngest {
+    private final LunarRoverStateMachine rover;
+    private final int capacity;
+
+    // Listener-free copy of the rover as it will be after every queued event is delivered
+    private final LunarRoverStateMachine projected;
+
+    // Delivered first: brakes, switches, exits and any input offered before them
+    private final ArrayDeque<PedalEvent> priorityLane = new ArrayDeque<>();
+    // Bounded: input offered after the last accepted brake, switch or exit
+    private final ArrayDeque<PedalEvent> normalLane = new ArrayDeque<>();
+
+    private final List<Consumer<PedalEvent>> cancelListeners = new ArrayList<>();
+
+    // Low-priority event dropped as a no-op with nothing accepted since, or null
+    private PedalEvent lastDropped;
+
+    // Counters
+    private long processed = 0;
+    private long droppedNoOp = 0;
+    private long rejected = 0;
+    private long cancelled = 0;
+
+    /**
+     * @param capacity maximum queued low-priority events; further offers are rejected
+     */
+    public EventIngest(LunarRoverStateMachine rover, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be > 0");
+        }
+        this.rover = rover;
+        this.capacity = capacity;
+        this.projected = new LunarRoverStateMachine(rover);
+    }
+
+    // Brake/exit and mode switching are never rejected for capacity
+    public static boolean isPriority(PedalEvent event) {
+        return event == PedalEvent.RIGHT_PRESSED || event == PedalEvent.SWITCH_FLIPPED;
+    }
+
+    /** Called with each accepted event a later brake cancels, in offer order. */
+    public void addCancelListener(Consumer<PedalEvent> listener) {
+        cancelListeners.add(listener);
+    }
+
+    /**
+     * Accepts an event. Returns false if it was dropped as a no-op or
+     * rejected for lack of capacity. An accepted event is delivered by
+     * the next drain unless a brake cancels it first.
+     */
+    public boolean offer(PedalEvent event) {
+        return isPriority(event) ? offerPriority(event) : offerNormal(event);
+    }
+
+    private boolean offerPriority(PedalEvent event) {
+        lastDropped = null;
+        // Queued input never changes the mode, so the projected mode is the brake's
+        boolean brake = event == PedalEvent.RIGHT_PRESSED && projected.getControlMode() == ControlMode.MOVEMENT;
+        if (brake) {
+            cancelQueuedMovement();
+        }
+        if (projected.isNoOp(event)) {
+            droppedNoOp++;
+            return false;
+        }
+        if (!brake) {
+            // Keep earlier input ahead of this switch or exit
+            priorityLane.addAll(normalLane);
+            normalLane.clear();
+        }
+        priorityLane.add(event);
+        projected.processEvent(event);
+        return true;
+    }
+
+    private void cancelQueuedMovement() {
+        if (normalLane.isEmpty()) {
+            return;
+        }
+        for (PedalEvent queued : normalLane) {
+            cancelListeners.forEach(l -> l.accept(queued));
+        }
+        cancelled += normalLane.size();
+        normalLane.clear();
+        projected.copyStateFrom(rover);
+        for (PedalEvent queued : priorityLane) {
+            projected.processEvent(queued);
+        }
+    }
+
+    private boolean offerNormal(PedalEvent event) {
+        // Fast path: the projection has not moved since this event was last a no-op
+        if (event == lastDropped) {
+            droppedNoOp++;
+            return false;
+        }
+        if (projected.isNoOp(event)) {
+            lastDropped = event;
+            droppedNoOp++;
+            return false;
+        }
+        lastDropped = null;
+        if (normalLane.size() >= capacity) {
+            rejected++;
+            return false;
+        }
+        normalLane.add(event);
+        projected.processEvent(event);
+        return true;
+    }
+
+    /** Delivers every queued event, priority lane first; returns how many reached the rover. */
+    public int drain() {
+        int delivered = 0;
+        while (!priorityLane.isEmpty() || !normalLane.isEmpty()) {
+            rover.processEvent(priorityLane.isEmpty() ? normalLane.poll() : priorityLane.poll());
+            delivered++;
+        }
+        processed += delivered;
+        return delivered;
+    }
+
+    public int queued() { return priorityLane.size() + normalLane.size(); }
+
+    // Getters for monitoring
+    public long getProcessed() { return processed; }
+    public long getDroppedNoOp() { return droppedNoOp; }
+    public long getRejected() { return rejected; }
+    public long getCancelled() { return cancelled; }
+}
@@ -0,0 +1,242 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package lunarrover;
+
+/**
+ * Secondary indexes over a fleet of rovers, kept up to date on every
+ * processed event so dashboard queries never call every machine's getters.
+ *
+ * Counts are O(1). Id sets are BitSet copies, so a set query costs one
+ * pass over the fleet-wide bitset (N/64 words) rather than time
+ * proportional to the result; use the count methods where a number is
+ * enough.
+ *
+ * Not thread-safe: updates run on whichever thread calls processEvent.
+ * The index and every rover registered with it must be confined to one
+ * thread, and queries must be made from that thread. Independent
+ * simulations on separate threads each need their own index.
+ *
+ * @author demi
+ */
+import java.util.*;
+
+public class FleetStateIndex {
+    // Indexed fields, in snapshot order; one device field per device state follows
+    private static final int F_CONTROL_MODE = 0;
+    private static final int F_MOVEMENT = 1;
+    private static final int F_CAMERA_DRILL = 2;
+    private static final int F_SPEED = 3;
+    private static final int F_FIRST_DEVICE = 4;
+
+    private static final CameraDrillState[] DEVICE_STATES = Arrays.stream(CameraDrillState.values())
+            .filter(s -> s.kind != null).toArray(CameraDrillState[]::new);
+    private static final int FIELD_COUNT = F_FIRST_DEVICE + DEVICE_STATES.length;
+
+    // Device field of each CameraDrillState, -1 for IDLE
+    private static final int[] DEVICE_FIELD = new int[CameraDrillState.values().length];
+
+    // Speed buckets (speed always moves in steps of 10)
+    private static final int SPEED_BUCKET_WIDTH = 10;
+    private static final int SPEED_BUCKETS =
+            (LunarRoverStateMachine.MAX_SPEED - LunarRoverStateMachine.MAX_REVERSE_SPEED) / SPEED_BUCKET_WIDTH + 1;
+
+    // First slot of each field; a slot is one (field, value) pair
+    private static final int[] FIELD_OFFSET = new int[FIELD_COUNT + 1];
+    static {
+        int[] sizes = new int[FIELD_COUNT];
+        sizes[F_CONTROL_MODE] = ControlMode.values().length;
+        sizes[F_MOVEMENT] = MovementState.values().length;
+        sizes[F_CAMERA_DRILL] = CameraDrillState.values().length;
+        sizes[F_SPEED] = SPEED_BUCKETS;
+        Arrays.fill(DEVICE_FIELD, -1);
+        for (int d = 0; d < DEVICE_STATES.length; d++) {
+            DEVICE_FIELD[DEVICE_STATES[d].ordinal()] = F_FIRST_DEVICE + d;
+            sizes[F_FIRST_DEVICE + d] = DEVICE_STATES[d].kind.subStates.length;
+        }
+        for (int f = 0; f < FIELD_COUNT; f++) {
+            FIELD_OFFSET[f + 1] = FIELD_OFFSET[f] + sizes[f];
+        }
+    }
+
+    private final List<LunarRoverStateMachine> rovers = new ArrayList<>();
+    private final Set<LunarRoverStateMachine> registered = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final BitSet[] slots = new BitSet[FIELD_OFFSET[FIELD_COUNT]];
+    private final int[] counts = new int[FIELD_OFFSET[FIELD_COUNT]];
+
+    // Last indexed slot of every field, FIELD_COUNT entries per rover
+    private int[] snapshots = new int[FIELD_COUNT * 16];
+
+    public FleetStateIndex() {
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new BitSet();
+        }
+    }
+
+    // ========================================================
+    // REGISTRATION
+    // ========================================================
+
+    /**
+     * Adds a rover to the index and returns its id. The rover is
+     * re-indexed after every event it processes from now on. A rover
+     * can be registered only once.
+     */
+    public int register(LunarRoverStateMachine rover) {
+        if (!registered.add(rover)) {
+            throw new IllegalArgumentException("Rover is already registered");
+        }
+        int id = rovers.size();
+        rovers.add(rover);
+        if (snapshots.length < (id + 1) * FIELD_COUNT) {
+            snapshots = Arrays.copyOf(snapshots, snapshots.length * 2);
+        }
+        int base = id * FIELD_COUNT;
+        for (int f = 0; f < FIELD_COUNT; f++) {
+            int slot = slotOf(rover, f);
+            snapshots[base + f] = slot;
+            slots[slot].set(id);
+            counts[slot]++;
+        }
+        rover.addStateListener(r -> update(id, r));
+        return id;
+    }
+
+    public LunarRoverStateMachine rover(int id) { return rovers.get(id); }
+    public int size() { return rovers.size(); }
+
+    // Only fields whose value changed touch the bitsets
+    private void update(int id, LunarRoverStateMachine rover) {
+        int base = id * FIELD_COUNT;
+        for (int f = 0; f < FIELD_COUNT; f++) {
+            int slot = slotOf(rover, f);
+            int old = snapshots[base + f];
+            if (slot != old) {
+                slots[old].clear(id);
+                counts[old]--;
+                slots[slot].set(id);
+                counts[slot]++;
+                snapshots[base + f] = slot;
+            }
+        }
+    }
+
+    private static int slotOf(LunarRoverStateMachine rover, int field) {
+        int value = switch (field) {
+            case F_CONTROL_MODE -> rover.getControlMode().ordinal();
+            case F_MOVEMENT -> rover.getMovementState().ordinal();
+            case F_CAMERA_DRILL -> rover.getCameraDrillState().ordinal();
+            case F_SPEED -> speedBucket(rover.getSpeed());
+            default -> rover.getDeviceSubState(DEVICE_STATES[field - F_FIRST_DEVICE]).ordinal();
+        };
+        return FIELD_OFFSET[field] + value;
+    }
+
+    private static int speedBucket(int speed) {
+        int clamped = Math.max(LunarRoverStateMachine.MAX_REVERSE_SPEED,
+                Math.min(speed, LunarRoverStateMachine.MAX_SPEED));
+        return (clamped - LunarRoverStateMachine.MAX_REVERSE_SPEED) / SPEED_BUCKET_WIDTH;
+    }
+
+    // ========================================================
+    // QUERIES (returned sets are copies, safe to modify)
+    // ========================================================
+
+    public BitSet idsIn(ControlMode mode) { return copy(F_CONTROL_MODE, mode.ordinal()); }
+    public BitSet idsIn(MovementState state) { return copy(F_MOVEMENT, state.ordinal()); }
+    public BitSet idsIn(CameraDrillState state) { return copy(F_CAMERA_DRILL, state.ordinal()); }
+    public BitSet idsIn(DrillSubState state) { return idsWithDevice(CameraDrillState.DRILL, state); }
+    public BitSet idsWithColorCamera(CameraSubState state) { return idsWithDevice(CameraDrillState.COLOR_CAMERA, state); }
+    public BitSet idsWith16mmCamera(CameraSubState state) { return idsWithDevice(CameraDrillState.CAMERA_16MM, state); }
+
+    public int countIn(ControlMode mode) { return counts[FIELD_OFFSET[F_CONTROL_MODE] + mode.ordinal()]; }
+    public int countIn(MovementState state) { return counts[FIELD_OFFSET[F_MOVEMENT] + state.ordinal()]; }
+    public int countIn(CameraDrillState state) { return counts[FIELD_OFFSET[F_CAMERA_DRILL] + state.ordinal()]; }
+    public int countIn(DrillSubState state) { return countWithDevice(CameraDrillState.DRILL, state); }
+    public int countWithColorCamera(CameraSubState state) { return countWithDevice(CameraDrillState.COLOR_CAMERA, state); }
+    public int countWith16mmCamera(CameraSubState state) { return countWithDevice(CameraDrillState.CAMERA_16MM, state); }
+
+    /** Rovers whose given device is in the given sub state, whether or not it is active. */
+    public BitSet idsWithDevice(CameraDrillState device, Enum<?> subState) {
+        return (BitSet) slots[deviceSlot(device, subState)].clone();
+    }
+
+    public int countWithDevice(CameraDrillState device, Enum<?> subState) {
+        return counts[deviceSlot(device, subState)];
+    }
+
+    private static int deviceSlot(CameraDrillState device, Enum<?> subState) {
+        int field = DEVICE_FIELD[device.ordinal()];
+        // Check the enum type first so a foreign ordinal never indexes subStates
+        if (field < 0 || subState.getDeclaringClass() != device.kind.subStates[0].getDeclaringClass()) {
+            throw new IllegalArgumentException(subState + " is not a sub state of " + device);
+        }
+        return FIELD_OFFSET[field] + subState.ordinal();
+    }
+
+    /** Rovers inside a drill device whose drill is in the given sub state. */
+    public BitSet idsDrilling(DrillSubState state) {
+        BitSet result = new BitSet();
+        for (CameraDrillState device : DEVICE_STATES) {
+            if (device.kind == DeviceConfig.Kind.DRILL) {
+                BitSet inDevice = copy(F_CAMERA_DRILL, device.ordinal());
+                inDevice.and(slots[deviceSlot(device, state)]);
+                result.or(inDevice);
+            }
+        }
+        return result;
+    }
+
+    /** Rovers with a temporizer running on any camera. */
+    public BitSet idsWithTemporizerActive() {
+        BitSet result = new BitSet();
+        for (CameraDrillState device : DEVICE_STATES) {
+            if (device.kind == DeviceConfig.Kind.CAMERA) {
+                result.or(slots[deviceSlot(device, CameraSubState.TEMPORIZER_ACTIVE)]);
+            }
+        }
+        return result;
+    }
+
+    /** Rovers whose speed lies in [min, max], both inclusive. */
+    public BitSet idsWithSpeedBetween(int min, int max) {
+        BitSet result = new BitSet();
+        for (int b = firstBucketAtLeast(min); b <= lastBucketAtMost(max); b++) {
+            result.or(slots[FIELD_OFFSET[F_SPEED] + b]);
+        }
+        return result;
+    }
+
+    public int countWithSpeedBetween(int min, int max) {
+        int total = 0;
+        for (int b = firstBucketAtLeast(min); b <= lastBucketAtMost(max); b++) {
+            total += counts[FIELD_OFFSET[F_SPEED] + b];
+        }
+        return total;
+    }
+
+    /** Rovers moving strictly faster than the given forward speed. */
+    public BitSet idsWithSpeedAbove(int speed) {
+        return idsWithSpeedBetween(speed + 1, LunarRoverStateMachine.MAX_SPEED);
+    }
+
+    public int countWithSpeedAbove(int speed) {
+        return countWithSpeedBetween(speed + 1, LunarRoverStateMachine.MAX_SPEED);
+    }
+
+    // Buckets hold exact speeds, so bounds round inwards
+    private static int firstBucketAtLeast(int speed) {
+        if (speed <= LunarRoverStateMachine.MAX_REVERSE_SPEED) return 0;
+        return -Math.floorDiv(LunarRoverStateMachine.MAX_REVERSE_SPEED - speed, SPEED_BUCKET_WIDTH);
+    }
+
+    private static int lastBucketAtMost(int speed) {
+        if (speed >= LunarRoverStateMachine.MAX_SPEED) return SPEED_BUCKETS - 1;
+        return Math.floorDiv(speed - LunarRoverStateMachine.MAX_REVERSE_SPEED, SPEED_BUCKET_WIDTH);
+    }
+
+    private BitSet copy(int field, int value) {
+        return (BitSet) slots[FIELD_OFFSET[field] + value].clone();
+    }
+}
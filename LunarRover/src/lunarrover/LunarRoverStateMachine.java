@@ -16,17 +16,78 @@ public class LunarRoverStateMachine {
     private ControlMode controlMode = ControlMode.MOVEMENT;
     private MovementState movementState = MovementState.REST;
     private CameraDrillState cameraDrillState = CameraDrillState.IDLE;
-    private CameraSubState colorCameraSubState = CameraSubState.READY;
-    private CameraSubState camera16mmSubState = CameraSubState.READY;
-    private DrillSubState drillSubState = DrillSubState.OFF;
+    
+    // Camera/drill devices, one slot each; sub states are packed into one long.
+    // Widening SUB_STATE_BITS lets a kind have more sub states but fewer devices fit
+    static final int SUB_STATE_BITS = 2;
+    private static final int SUB_STATE_MASK = (1 << SUB_STATE_BITS) - 1;
+    private static final int MAX_DEVICES = Long.SIZE / SUB_STATE_BITS;
+    private static final CameraSubState[] CAMERA_SUB_STATES = CameraSubState.values();
+    private final DeviceConfig[] devices;
+    private final int[] slotByGesture;
+    private final int[] slotByState;
+    private long deviceSubStates = 0L;
+    private int activeSlot = -1;
     
     // Speed simulation (0-100, negative for reverse)
     private int speed = 0;
-    private static final int MAX_SPEED = 100;
-    private static final int MAX_REVERSE_SPEED = -50;
+    static final int MAX_SPEED = 100;
+    static final int MAX_REVERSE_SPEED = -50;
     private static final int ACCEL_STEP = 10;
     private static final int DECEL_STEP = 10;
     
+    public LunarRoverStateMachine() {
+        this(DeviceConfig.defaults());
+    }
+    
+    public LunarRoverStateMachine(DeviceConfig... devices) {
+        if (devices.length > MAX_DEVICES) {
+            throw new IllegalArgumentException("At most " + MAX_DEVICES + " devices are supported");
+        }
+        this.devices = devices.clone();
+        this.slotByGesture = new int[PedalEvent.values().length];
+        this.slotByState = new int[CameraDrillState.values().length];
+        Arrays.fill(slotByGesture, -1);
+        Arrays.fill(slotByState, -1);
+        for (int slot = 0; slot < this.devices.length; slot++) {
+            DeviceConfig device = this.devices[slot];
+            if (slotByGesture[device.entryGesture.ordinal()] >= 0) {
+                throw new IllegalArgumentException("Gesture already mapped: " + device.entryGesture);
+            }
+            if (slotByState[device.state.ordinal()] >= 0) {
+                throw new IllegalArgumentException("State already mapped: " + device.state);
+            }
+            slotByGesture[device.entryGesture.ordinal()] = slot;
+            slotByState[device.state.ordinal()] = slot;
+        }
+    }
+    
+    // Listener-free copy sharing the device configuration
+    LunarRoverStateMachine(LunarRoverStateMachine other) {
+        this.devices = other.devices;
+        this.slotByGesture = other.slotByGesture;
+        this.slotByState = other.slotByState;
+        copyStateFrom(other);
+    }
+    
+    void copyStateFrom(LunarRoverStateMachine other) {
+        controlMode = other.controlMode;
+        movementState = other.movementState;
+        cameraDrillState = other.cameraDrillState;
+        deviceSubStates = other.deviceSubStates;
+        activeSlot = other.activeSlot;
+        speed = other.speed;
+    }
+    
+    boolean sameState(LunarRoverStateMachine other) {
+        return controlMode == other.controlMode
+                && movementState == other.movementState
+                && cameraDrillState == other.cameraDrillState
+                && deviceSubStates == other.deviceSubStates
+                && activeSlot == other.activeSlot
+                && speed == other.speed;
+    }
+    
     // Event listeners for simulation output
     private List<Consumer<String>> listeners = new ArrayList<>();
     
@@ -38,6 +99,19 @@ public class LunarRoverStateMachine {
         listeners.forEach(l -> l.accept(message));
     }
     
+    // State listeners, notified once after every processed event
+    private List<Consumer<LunarRoverStateMachine>> stateListeners = new ArrayList<>();
+    
+    public void addStateListener(Consumer<LunarRoverStateMachine> listener) {
+        stateListeners.add(listener);
+    }
+    
+    private void notifyStateListeners() {
+        for (Consumer<LunarRoverStateMachine> l : stateListeners) {
+            l.accept(this);
+        }
+    }
+    
     // ========================================================
     // PUBLIC API
     // ========================================================
@@ -47,6 +121,7 @@ public class LunarRoverStateMachine {
         
         if (event == PedalEvent.SWITCH_FLIPPED) {
             handleSwitchFlipped();
+            notifyStateListeners();
             return;
         }
         
@@ -56,6 +131,7 @@ public class LunarRoverStateMachine {
         }
         
         logCurrentState();
+        notifyStateListeners();
     }
     
     // ========================================================
@@ -265,139 +341,159 @@ public class LunarRoverStateMachine {
     // ========================================================
     
     private void handleCameraDrillEvent(PedalEvent event) {
-        switch (cameraDrillState) {
-            case IDLE -> handleIdleState(event);
-            case COLOR_CAMERA -> handleColorCameraState(event);
-            case CAMERA_16MM -> handle16mmCameraState(event);
-            case DRILL -> handleDrillState(event);
+        if (activeSlot < 0) {
+            handleIdleState(event);
+        } else if (devices[activeSlot].kind == DeviceConfig.Kind.CAMERA) {
+            handleCameraState(activeSlot, event);
+        } else {
+            handleDrillState(activeSlot, event);
         }
     }
     
     private void handleIdleState(PedalEvent event) {
-        switch (event) {
-            case LEFT_HELD_5S -> {
-                cameraDrillState = CameraDrillState.COLOR_CAMERA;
-                colorCameraSubState = CameraSubState.READY;
-                log("==> Entered COLOR CAMERA mode");
-            }
-            case LEFT_HELD_10S -> {
-                cameraDrillState = CameraDrillState.CAMERA_16MM;
-                camera16mmSubState = CameraSubState.READY;
-                log("==> Entered 16MM CAMERA mode");
-            }
-            case LEFT_DOUBLE_PRESS -> {
-                cameraDrillState = CameraDrillState.DRILL;
-                drillSubState = DrillSubState.OFF;
-                log("==> Entered DRILL mode");
-            }
-            default -> log("--- Event ignored in IDLE state");
-        }
-    }
-    
-    private void handleColorCameraState(PedalEvent event) {
-        if (event == PedalEvent.RIGHT_PRESSED) {
-            cameraDrillState = CameraDrillState.IDLE;
-            colorCameraSubState = CameraSubState.READY;
-            log("==> Returned to IDLE from Color Camera");
+        int slot = slotByGesture[event.ordinal()];
+        if (slot < 0) {
+            log("--- Event ignored in IDLE state");
             return;
         }
-        
-        switch (colorCameraSubState) {
-            case READY -> {
-                switch (event) {
-                    case LEFT_PRESSED -> {
-                        colorCameraSubState = CameraSubState.TAKING_PICTURE;
-                        log("==> Color Camera: Taking picture...");
-                        // Auto-transition back (simulated)
-                        colorCameraSubState = CameraSubState.READY;
-                        log("==> Color Camera: Picture taken, ready");
-                    }
-                    case LEFT_HELD_5S -> {
-                        colorCameraSubState = CameraSubState.TEMPORIZER_ACTIVE;
-                        log("==> Color Camera: Temporizer activated (selfie mode)");
-                    }
-                    default -> log("--- Event ignored in Color Camera READY");
-                }
-            }
-            case TEMPORIZER_ACTIVE -> {
-                if (event == PedalEvent.TIMER_EXPIRED) {
-                    colorCameraSubState = CameraSubState.TAKING_PICTURE;
-                    log("==> Color Camera: Timer expired, taking picture...");
-                    colorCameraSubState = CameraSubState.READY;
-                    log("==> Color Camera: Picture taken, ready");
-                } else {
-                    log("--- Waiting for timer in Color Camera");
-                }
-            }
-            case TAKING_PICTURE -> log("--- Color Camera busy taking picture");
-        }
+        activeSlot = slot;
+        cameraDrillState = devices[slot].state;
+        setSubState(slot, 0);
+        log(devices[slot].enteredMsg);
     }
     
-    private void handle16mmCameraState(PedalEvent event) {
+    // Shared by every camera slot
+    private void handleCameraState(int slot, PedalEvent event) {
+        DeviceConfig device = devices[slot];
         if (event == PedalEvent.RIGHT_PRESSED) {
-            cameraDrillState = CameraDrillState.IDLE;
-            camera16mmSubState = CameraSubState.READY;
-            log("==> Returned to IDLE from 16mm Camera");
+            exitToIdle(slot);
+            log(device.returnedMsg);
             return;
         }
         
-        switch (camera16mmSubState) {
+        switch (CAMERA_SUB_STATES[subState(slot)]) {
             case READY -> {
                 switch (event) {
                     case LEFT_PRESSED -> {
-                        camera16mmSubState = CameraSubState.TAKING_PICTURE;
-                        log("==> 16mm Camera: Taking picture...");
-                        camera16mmSubState = CameraSubState.READY;
-                        log("==> 16mm Camera: Picture taken, ready");
+                        // TAKING_PICTURE is transient; it auto-returns to READY (simulated)
+                        log(device.takingPictureMsg);
+                        log(device.pictureTakenMsg);
                     }
                     case LEFT_HELD_5S -> {
-                        camera16mmSubState = CameraSubState.TEMPORIZER_ACTIVE;
-                        log("==> 16mm Camera: Temporizer activated (selfie mode)");
+                        setSubState(slot, CameraSubState.TEMPORIZER_ACTIVE.ordinal());
+                        log(device.temporizerMsg);
                     }
-                    default -> log("--- Event ignored in 16mm Camera READY");
+                    default -> log(device.ignoredReadyMsg);
                 }
             }
             case TEMPORIZER_ACTIVE -> {
                 if (event == PedalEvent.TIMER_EXPIRED) {
-                    camera16mmSubState = CameraSubState.TAKING_PICTURE;
-                    log("==> 16mm Camera: Timer expired, taking picture...");
-                    camera16mmSubState = CameraSubState.READY;
-                    log("==> 16mm Camera: Picture taken, ready");
+                    setSubState(slot, CameraSubState.READY.ordinal());
+                    log(device.timerExpiredMsg);
+                    log(device.pictureTakenMsg);
                 } else {
-                    log("--- Waiting for timer in 16mm Camera");
+                    log(device.waitingMsg);
                 }
             }
-            case TAKING_PICTURE -> log("--- 16mm Camera busy taking picture");
+            case TAKING_PICTURE -> log(device.busyMsg);
         }
     }
     
-    private void handleDrillState(PedalEvent event) {
+    private void handleDrillState(int slot, PedalEvent event) {
+        DeviceConfig device = devices[slot];
         switch (event) {
             case RIGHT_PRESSED -> {
-                if (drillSubState == DrillSubState.ON) {
-                    drillSubState = DrillSubState.OFF;
-                    log("==> Drill auto-disabled on exit");
+                if (subState(slot) == DrillSubState.ON.ordinal()) {
+                    log(device.autoDisabledMsg);
                 }
-                cameraDrillState = CameraDrillState.IDLE;
-                log("==> Returned to IDLE from Drill");
+                exitToIdle(slot);
+                log(device.returnedMsg);
             }
             case LEFT_PRESSED -> {
-                if (drillSubState == DrillSubState.OFF) {
-                    drillSubState = DrillSubState.ON;
-                    log("==> Drill: Turned ON");
+                if (subState(slot) == DrillSubState.OFF.ordinal()) {
+                    setSubState(slot, DrillSubState.ON.ordinal());
+                    log(device.turnedOnMsg);
                 } else {
-                    drillSubState = DrillSubState.OFF;
-                    log("==> Drill: Turned OFF");
+                    setSubState(slot, DrillSubState.OFF.ordinal());
+                    log(device.turnedOffMsg);
                 }
             }
-            default -> log("--- Event ignored in DRILL state");
+            default -> log(device.ignoredMsg);
         }
     }
     
+    // Leaving a device resets it (Assumption #11)
+    private void exitToIdle(int slot) {
+        setSubState(slot, 0);
+        activeSlot = -1;
+        cameraDrillState = CameraDrillState.IDLE;
+    }
+    
+    // Packed sub state helpers, SUB_STATE_BITS per slot
+    private int subState(int slot) {
+        return (int) (deviceSubStates >>> (slot * SUB_STATE_BITS)) & SUB_STATE_MASK;
+    }
+    
+    private void setSubState(int slot, int value) {
+        int shift = slot * SUB_STATE_BITS;
+        deviceSubStates = (deviceSubStates & ~((long) SUB_STATE_MASK << shift)) | ((long) value << shift);
+    }
+    
+    // Ordinal 0 (READY / OFF) is the reset state of every device kind
     private void resetCameraAndDrillSubStates() {
-        colorCameraSubState = CameraSubState.READY;
-        camera16mmSubState = CameraSubState.READY;
-        drillSubState = DrillSubState.OFF;
+        deviceSubStates = 0L;
+    }
+    
+    // ========================================================
+    // NO-OP PREDICTION (must mirror the handlers above; SelfChecks verifies it)
+    // ========================================================
+    
+    /**
+     * True if processing the event in the current state would change
+     * nothing and trigger no action, only an "ignored" or rejection log.
+     */
+    public boolean isNoOp(PedalEvent event) {
+        if (event == PedalEvent.SWITCH_FLIPPED) {
+            return controlMode == ControlMode.MOVEMENT
+                    ? movementState != MovementState.REST
+                    : cameraDrillState != CameraDrillState.IDLE;
+        }
+        return controlMode == ControlMode.MOVEMENT ? isMovementNoOp(event) : isCameraDrillNoOp(event);
+    }
+    
+    private boolean isMovementNoOp(PedalEvent event) {
+        return switch (movementState) {
+            case REST -> event != PedalEvent.LEFT_PRESSED && event != PedalEvent.LEFT_HELD_3S;
+            case ACCELERATING_FORWARD -> event == PedalEvent.LEFT_PRESSED ? speed >= MAX_SPEED
+                    : event != PedalEvent.RIGHT_PRESSED && event != PedalEvent.RIGHT_HELD_3S;
+            case CONSTANT_SPEED_FORWARD -> event == PedalEvent.LEFT_PRESSED ? speed >= MAX_SPEED
+                    : event != PedalEvent.RIGHT_PRESSED;
+            case DECELERATING_FORWARD -> event == PedalEvent.RIGHT_HELD_3S ? speed <= 0
+                    : event != PedalEvent.LEFT_PRESSED && event != PedalEvent.RIGHT_PRESSED;
+            case DECELERATING_BACKWARD -> event == PedalEvent.RIGHT_HELD_3S ? speed >= 0
+                    : event != PedalEvent.LEFT_PRESSED && event != PedalEvent.RIGHT_PRESSED;
+            case ACCELERATING_BACKWARD -> event == PedalEvent.LEFT_PRESSED ? speed <= MAX_REVERSE_SPEED
+                    : event != PedalEvent.RIGHT_PRESSED && event != PedalEvent.RIGHT_HELD_3S;
+            case CONSTANT_SPEED_BACKWARD -> event != PedalEvent.LEFT_PRESSED && event != PedalEvent.RIGHT_PRESSED;
+        };
+    }
+    
+    private boolean isCameraDrillNoOp(PedalEvent event) {
+        if (activeSlot < 0) {
+            return slotByGesture[event.ordinal()] < 0;
+        }
+        if (event == PedalEvent.RIGHT_PRESSED) {
+            return false;
+        }
+        if (devices[activeSlot].kind == DeviceConfig.Kind.DRILL) {
+            return event != PedalEvent.LEFT_PRESSED;
+        }
+        // Taking a picture leaves the state unchanged but is not a no-op
+        return switch (CAMERA_SUB_STATES[subState(activeSlot)]) {
+            case READY -> event != PedalEvent.LEFT_PRESSED && event != PedalEvent.LEFT_HELD_5S;
+            case TEMPORIZER_ACTIVE -> event != PedalEvent.TIMER_EXPIRED;
+            case TAKING_PICTURE -> true;
+        };
     }
     
     // ========================================================
@@ -405,6 +501,9 @@ public class LunarRoverStateMachine {
     // ========================================================
     
     public void logCurrentState() {
+        if (listeners.isEmpty()) {
+            return;  // nobody is watching, skip building the report
+        }
         StringBuilder sb = new StringBuilder();
         sb.append("\n--- Current State ---\n");
         sb.append("Control Mode: ").append(controlMode).append("\n");
@@ -414,23 +513,52 @@ public class LunarRoverStateMachine {
             sb.append("Movement State: ").append(movementState).append("\n");
         } else {
             sb.append("Camera/Drill State: ").append(cameraDrillState).append("\n");
-            switch (cameraDrillState) {
-                case COLOR_CAMERA -> sb.append("  Color Camera Sub: ").append(colorCameraSubState).append("\n");
-                case CAMERA_16MM -> sb.append("  16mm Camera Sub: ").append(camera16mmSubState).append("\n");
-                case DRILL -> sb.append("  Drill Sub: ").append(drillSubState).append("\n");
-                default -> {}
+            if (activeSlot >= 0) {
+                sb.append("  ").append(devices[activeSlot].label).append(" Sub: ")
+                  .append(subStateName(activeSlot)).append("\n");
             }
         }
         sb.append("---------------------");
         log(sb.toString());
     }
     
+    private String subStateName(int slot) {
+        return devices[slot].kind.subStates[subState(slot)].name();
+    }
+    
     // Getters for testing
     public ControlMode getControlMode() { return controlMode; }
     public MovementState getMovementState() { return movementState; }
     public CameraDrillState getCameraDrillState() { return cameraDrillState; }
-    public CameraSubState getColorCameraSubState() { return colorCameraSubState; }
-    public CameraSubState getCamera16mmSubState() { return camera16mmSubState; }
-    public DrillSubState getDrillSubState() { return drillSubState; }
+    public CameraSubState getColorCameraSubState() { return getCameraSubState(CameraDrillState.COLOR_CAMERA); }
+    public CameraSubState getCamera16mmSubState() { return getCameraSubState(CameraDrillState.CAMERA_16MM); }
+    public DrillSubState getDrillSubState() { return getDrillSubState(CameraDrillState.DRILL); }
+    
+    // Unconfigured devices report their reset state
+    public Enum<?> getDeviceSubState(CameraDrillState device) {
+        if (device.kind == null) {
+            throw new IllegalArgumentException(device + " is not a device state");
+        }
+        int slot = slotByState[device.ordinal()];
+        return device.kind.subStates[slot < 0 ? 0 : subState(slot)];
+    }
+    
+    public CameraSubState getCameraSubState(CameraDrillState device) {
+        requireKind(device, DeviceConfig.Kind.CAMERA);
+        return (CameraSubState) getDeviceSubState(device);
+    }
+    
+    public DrillSubState getDrillSubState(CameraDrillState device) {
+        requireKind(device, DeviceConfig.Kind.DRILL);
+        return (DrillSubState) getDeviceSubState(device);
+    }
+    
+    private void requireKind(CameraDrillState device, DeviceConfig.Kind kind) {
+        int slot = slotByState[device.ordinal()];
+        DeviceConfig.Kind actual = slot < 0 ? device.kind : devices[slot].kind;
+        if (actual != kind) {
+            throw new IllegalArgumentException(device + " is a " + actual + " device, not " + kind);
+        }
+    }
     public int getSpeed() { return speed; }
 }
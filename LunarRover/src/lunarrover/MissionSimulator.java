@@ -0,0 +1,170 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package lunarrover;
+
+/**
+ * Discrete-event simulation kernel with a virtual clock. Pedal actions,
+ * holds and mode switches are scheduled at virtual timestamps and the
+ * clock jumps straight from one event to the next, so an hours-long EVA
+ * runs in milliseconds.
+ *
+ * Events at the same timestamp are delivered in scheduling order, which
+ * makes every run deterministic. A simulator is single-threaded and
+ * shares nothing, so independent missions can run on separate threads.
+ *
+ * @author demi
+ */
+import java.util.*;
+
+public class MissionSimulator {
+    // Hold thresholds (Assumption #9: hold duration detected at release)
+    public static final long HOLD_3S = 3_000;
+    public static final long HOLD_5S = 5_000;
+    public static final long HOLD_10S = 10_000;
+
+    // Left holds carry their duration and a null event; the gesture is resolved on release
+    private record Event(long time, long seq, int rover, PedalEvent event, long leftHold, int timerGeneration)
+            implements Comparable<Event> {
+        @Override
+        public int compareTo(Event o) {
+            int c = Long.compare(time, o.time);
+            return c != 0 ? c : Long.compare(seq, o.seq);
+        }
+    }
+
+    private static final int NO_TIMER = -1;
+    private static final long NO_HOLD = -1;
+
+    // Left hold gestures, longest first
+    private static final PedalEvent[] LEFT_HOLDS =
+            {PedalEvent.LEFT_HELD_10S, PedalEvent.LEFT_HELD_5S, PedalEvent.LEFT_HELD_3S};
+    private static final long[] LEFT_HOLD_MILLIS = {HOLD_10S, HOLD_5S, HOLD_3S};
+
+    private final long temporizerDelay;
+    private final PriorityQueue<Event> queue = new PriorityQueue<>();
+    private final List<LunarRoverStateMachine> rovers = new ArrayList<>();
+    private int[] timerGeneration = new int[8];
+    private boolean[] temporizerArmed = new boolean[8];
+    private long now = 0;
+    private long seq = 0;
+
+    // Temporizer delay is configurable (Assumption #6)
+    public MissionSimulator(long temporizerDelayMillis) {
+        if (temporizerDelayMillis < 0) {
+            throw new IllegalArgumentException("Temporizer delay must be >= 0");
+        }
+        this.temporizerDelay = temporizerDelayMillis;
+    }
+
+    public int addRover(LunarRoverStateMachine rover) {
+        int id = rovers.size();
+        rovers.add(rover);
+        if (id == timerGeneration.length) {
+            timerGeneration = Arrays.copyOf(timerGeneration, id * 2);
+            temporizerArmed = Arrays.copyOf(temporizerArmed, id * 2);
+        }
+        return id;
+    }
+
+    public LunarRoverStateMachine rover(int id) { return rovers.get(id); }
+    public long now() { return now; }
+    public int pending() { return queue.size(); }
+
+    // ========================================================
+    // SCHEDULING
+    // ========================================================
+
+    public void schedule(long atMillis, int rover, PedalEvent event) {
+        enqueue(atMillis, rover, event, NO_HOLD);
+    }
+
+    private void enqueue(long atMillis, int rover, PedalEvent event, long leftHold) {
+        if (atMillis < now) {
+            throw new IllegalArgumentException("Cannot schedule in the past: " + atMillis + " < " + now);
+        }
+        if (rover < 0 || rover >= rovers.size()) {
+            throw new IllegalArgumentException("Unknown rover: " + rover);
+        }
+        queue.add(new Event(atMillis, seq++, rover, event, leftHold, NO_TIMER));
+    }
+
+    /**
+     * Left pedal held from atMillis for holdMillis. The gesture fires on
+     * release and depends on the rover's mode and state at that moment.
+     */
+    public void scheduleLeftHold(long atMillis, int rover, long holdMillis) {
+        enqueue(atMillis + holdMillis, rover, null, holdMillis);
+    }
+
+    /**
+     * The gesture a left hold of the given length produces: the longest
+     * hold threshold it passed whose gesture the rover acts on right now
+     * (a 6 s hold at REST accelerates backward, a 12 s hold in camera
+     * READY starts the temporizer). A hold nothing acts on reads as the
+     * 3 s hold, a hold under 3 s as a press.
+     */
+    static PedalEvent leftHoldGesture(LunarRoverStateMachine rover, long holdMillis) {
+        if (holdMillis < HOLD_3S) {
+            return PedalEvent.LEFT_PRESSED;
+        }
+        for (int i = 0; i < LEFT_HOLDS.length; i++) {
+            if (holdMillis >= LEFT_HOLD_MILLIS[i] && !rover.isNoOp(LEFT_HOLDS[i])) {
+                return LEFT_HOLDS[i];
+            }
+        }
+        return PedalEvent.LEFT_HELD_3S;
+    }
+
+    /** Right pedal held from atMillis for holdMillis; the gesture fires on release. */
+    public void scheduleRightHold(long atMillis, int rover, long holdMillis) {
+        PedalEvent gesture = holdMillis >= HOLD_3S ? PedalEvent.RIGHT_HELD_3S : PedalEvent.RIGHT_PRESSED;
+        schedule(atMillis + holdMillis, rover, gesture);
+    }
+
+    // ========================================================
+    // RUNNING
+    // ========================================================
+
+    /** Runs until no events remain; returns the number delivered. */
+    public int run() {
+        return runUntil(Long.MAX_VALUE);
+    }
+
+    /** Delivers every event at or before the given time, then advances the clock to it. */
+    public int runUntil(long timeMillis) {
+        int delivered = 0;
+        while (!queue.isEmpty() && queue.peek().time() <= timeMillis) {
+            Event e = queue.poll();
+            now = e.time();
+            if (e.timerGeneration() != NO_TIMER && e.timerGeneration() != timerGeneration[e.rover()]) {
+                continue;  // cancelled: temporizer left before expiry
+            }
+            LunarRoverStateMachine rover = rovers.get(e.rover());
+            rover.processEvent(e.event() != null ? e.event() : leftHoldGesture(rover, e.leftHold()));
+            trackTemporizer(e.rover(), rover);
+            delivered++;
+        }
+        if (timeMillis != Long.MAX_VALUE) {
+            now = Math.max(now, timeMillis);
+        }
+        return delivered;
+    }
+
+    // Arms TIMER_EXPIRED when a camera enters TEMPORIZER_ACTIVE, cancels it when it leaves
+    private void trackTemporizer(int id, LunarRoverStateMachine rover) {
+        CameraDrillState device = rover.getCameraDrillState();
+        boolean active = rover.getControlMode() == ControlMode.CAMERA_DRILL
+                && device.kind == DeviceConfig.Kind.CAMERA
+                && rover.getCameraSubState(device) == CameraSubState.TEMPORIZER_ACTIVE;
+        if (active == temporizerArmed[id]) {
+            return;
+        }
+        temporizerArmed[id] = active;
+        int generation = ++timerGeneration[id];
+        if (active) {
+            queue.add(new Event(now + temporizerDelay, seq++, id, PedalEvent.TIMER_EXPIRED, NO_HOLD, generation));
+        }
+    }
+}
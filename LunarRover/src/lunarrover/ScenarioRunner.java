@@ -0,0 +1,256 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package lunarrover;
+
+/**
+ * Runs declarative scenario files in parallel, each against its own
+ * state machine, and reports failures as expected/actual diffs.
+ *
+ * File format (*.scenario), one step per line:
+ * <pre>
+ * # comment
+ * LEFT_PRESSED   movement=ACCELERATING_FORWARD speed=10
+ * SWITCH_FLIPPED mode=CAMERA_DRILL
+ * </pre>
+ * Keys: mode, movement, device, speed, and the sub state of any device
+ * by its CameraDrillState name (e.g. COLOR_CAMERA=READY, DRILL=ON);
+ * colorCamera, camera16mm and drill are aliases for the default devices.
+ * Only the listed keys are checked after the step.
+ *
+ * A first line "@ingest capacity=N" feeds the events through an
+ * EventIngest instead: event lines are offers (accepted=true|false
+ * checks the result), DRAIN delivers the queue, and processed, noop,
+ * rejected, cancelled and queued check the ingest counters.
+ *
+ * @author demi
+ */
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+public class ScenarioRunner {
+    public static final String EXTENSION = ".scenario";
+
+    private static final List<String> KEYS = List.of("mode", "movement", "device", "speed");
+
+    // Ingest scenarios
+    private static final String INGEST_DIRECTIVE = "@ingest";
+    private static final String DRAIN = "DRAIN";
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final List<String> INGEST_KEYS =
+            List.of("processed", "noop", "rejected", "cancelled", "queued");
+    private static final String ACCEPTED = "accepted";
+
+    private static final Map<String, CameraDrillState> DEVICE_KEYS = new HashMap<>();
+    static {
+        for (CameraDrillState state : CameraDrillState.values()) {
+            if (state.kind != null) {
+                DEVICE_KEYS.put(state.name(), state);
+            }
+        }
+        DEVICE_KEYS.put("colorCamera", CameraDrillState.COLOR_CAMERA);
+        DEVICE_KEYS.put("camera16mm", CameraDrillState.CAMERA_16MM);
+        DEVICE_KEYS.put("drill", CameraDrillState.DRILL);
+    }
+
+    public record Step(int line, PedalEvent event, Map<String, String> expected) {
+        // DRAIN steps deliver the ingest queue instead of offering an event
+        public boolean isDrain() { return event == null; }
+    }
+
+    public record Ingest(int capacity) {}
+
+    // ingest is null for scenarios that feed the state machine directly
+    public record Scenario(String name, Ingest ingest, List<Step> steps) {}
+
+    public record Result(String name, long nanos, List<String> failures) {
+        public boolean passed() { return failures.isEmpty(); }
+    }
+
+    // ========================================================
+    // LOADING
+    // ========================================================
+
+    public static List<Path> findScenarios(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(p -> p.toString().endsWith(EXTENSION)).sorted().toList();
+        }
+    }
+
+    public static Scenario parse(String name, List<String> lines) {
+        List<Step> steps = new ArrayList<>();
+        Ingest ingest = null;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String where = name + ":" + (i + 1) + ": ";
+            String[] tokens = line.split("\\s+");
+            if (tokens[0].equals(INGEST_DIRECTIVE)) {
+                if (!steps.isEmpty() || ingest != null) {
+                    throw new IllegalArgumentException(where + INGEST_DIRECTIVE + " must come first, once");
+                }
+                ingest = parseIngest(where, tokens);
+                continue;
+            }
+            PedalEvent event = null;
+            if (tokens[0].equals(DRAIN)) {
+                if (ingest == null) {
+                    throw new IllegalArgumentException(where + DRAIN + " needs " + INGEST_DIRECTIVE);
+                }
+            } else {
+                try {
+                    event = PedalEvent.valueOf(tokens[0]);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(where + "unknown event " + tokens[0]);
+                }
+            }
+            Map<String, String> expected = new LinkedHashMap<>();
+            for (int t = 1; t < tokens.length; t++) {
+                int eq = tokens[t].indexOf('=');
+                String key = eq < 0 ? tokens[t] : tokens[t].substring(0, eq);
+                boolean ingestKey = INGEST_KEYS.contains(key) || (event != null && key.equals(ACCEPTED));
+                if (eq < 0 || !(KEYS.contains(key) || DEVICE_KEYS.containsKey(key) || (ingest != null && ingestKey))) {
+                    throw new IllegalArgumentException(where + "bad expectation " + tokens[t]);
+                }
+                expected.put(key, tokens[t].substring(eq + 1));
+            }
+            steps.add(new Step(i + 1, event, expected));
+        }
+        return new Scenario(name, ingest, steps);
+    }
+
+    private static Ingest parseIngest(String where, String[] tokens) {
+        long capacity = DEFAULT_CAPACITY;
+        for (int t = 1; t < tokens.length; t++) {
+            if (tokens[t].startsWith("capacity=")) {
+                capacity = parseLong(where, tokens[t].substring("capacity=".length()));
+            } else {
+                throw new IllegalArgumentException(where + "bad " + INGEST_DIRECTIVE + " option " + tokens[t]);
+            }
+        }
+        if (capacity <= 0 || capacity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(where + "capacity out of range: " + capacity);
+        }
+        return new Ingest((int) capacity);
+    }
+
+    private static long parseLong(String where, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(where + "not a number: " + value);
+        }
+    }
+
+    // ========================================================
+    // RUNNING
+    // ========================================================
+
+    /** Runs every file on the common fork/join pool; results keep file order. */
+    public List<Result> runAll(Path root, List<Path> files) {
+        return files.parallelStream().map(f -> runFile(root.relativize(f).toString(), f)).toList();
+    }
+
+    // Any failure is confined to its own scenario so one bad file cannot abort the run
+    private Result runFile(String name, Path file) {
+        long start = System.nanoTime();
+        try {
+            return run(parse(name, Files.readAllLines(file)));
+        } catch (IllegalArgumentException e) {
+            return new Result(name, System.nanoTime() - start, List.of(e.getMessage()));
+        } catch (IOException e) {
+            return new Result(name, System.nanoTime() - start, List.of("cannot read: " + e));
+        } catch (RuntimeException e) {
+            return new Result(name, System.nanoTime() - start, List.of("error: " + e));
+        }
+    }
+
+    // Fresh machine, no listeners: nothing is shared between scenarios
+    public Result run(Scenario scenario) {
+        long start = System.nanoTime();
+        LunarRoverStateMachine rover = new LunarRoverStateMachine();
+        EventIngest ingest = scenario.ingest() == null ? null
+                : new EventIngest(rover, scenario.ingest().capacity());
+        List<String> failures = new ArrayList<>();
+        int index = 0;
+        for (Step step : scenario.steps()) {
+            index++;
+            boolean accepted = true;
+            if (ingest == null) {
+                rover.processEvent(step.event());
+            } else if (step.isDrain()) {
+                ingest.drain();
+            } else {
+                accepted = ingest.offer(step.event());
+            }
+            StringBuilder diff = new StringBuilder();
+            for (Map.Entry<String, String> e : step.expected().entrySet()) {
+                String actual = e.getKey().equals(ACCEPTED) ? Boolean.toString(accepted)
+                        : ingest != null && INGEST_KEYS.contains(e.getKey()) ? actual(ingest, e.getKey())
+                        : actual(rover, e.getKey());
+                if (!actual.equals(e.getValue())) {
+                    diff.append("\n    - ").append(e.getKey()).append('=').append(e.getValue());
+                    diff.append("\n    + ").append(e.getKey()).append('=').append(actual);
+                }
+            }
+            if (diff.length() > 0) {
+                String label = step.isDrain() ? DRAIN : step.event().name();
+                failures.add("step " + index + " " + label + " (line " + step.line() + ")" + diff);
+            }
+        }
+        return new Result(scenario.name(), System.nanoTime() - start, failures);
+    }
+
+    private static String actual(EventIngest ingest, String key) {
+        long value = switch (key) {
+            case "processed" -> ingest.getProcessed();
+            case "noop" -> ingest.getDroppedNoOp();
+            case "rejected" -> ingest.getRejected();
+            case "cancelled" -> ingest.getCancelled();
+            default -> ingest.queued();
+        };
+        return Long.toString(value);
+    }
+
+    private static String actual(LunarRoverStateMachine rover, String key) {
+        return switch (key) {
+            case "mode" -> rover.getControlMode().name();
+            case "movement" -> rover.getMovementState().name();
+            case "device" -> rover.getCameraDrillState().name();
+            case "speed" -> Integer.toString(rover.getSpeed());
+            default -> rover.getDeviceSubState(DEVICE_KEYS.get(key)).name();
+        };
+    }
+
+    // ========================================================
+    // REPORTING
+    // ========================================================
+
+    /** Prints failures and a timing summary; returns the number of failed scenarios. */
+    public static int report(List<Result> results, long wallNanos) {
+        int failed = 0;
+        for (Result r : results) {
+            if (!r.passed()) {
+                failed++;
+                System.out.printf("FAIL %s (%.3f ms)%n", r.name(), r.nanos() / 1e6);
+                r.failures().forEach(f -> System.out.println("  " + f));
+            }
+        }
+
+        List<Result> slowest = new ArrayList<>(results);
+        slowest.sort(Comparator.comparingLong(Result::nanos).reversed());
+        System.out.println("\nSlowest scenarios:");
+        for (Result r : slowest.subList(0, Math.min(5, slowest.size()))) {
+            System.out.printf("  %8.3f ms  %s%n", r.nanos() / 1e6, r.name());
+        }
+
+        System.out.printf("%n%d scenarios, %d passed, %d failed in %.1f ms%n",
+                results.size(), results.size() - failed, failed, wallNanos / 1e6);
+        return failed;
+    }
+}
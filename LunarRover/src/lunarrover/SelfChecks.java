@@ -0,0 +1,431 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package lunarrover;
+
+/**
+ * Randomized consistency checks, kept out of the scenario run so the
+ * corpus stays fast. Each check drives state machines with seeded random
+ * events and compares a derived structure against the machines' own
+ * getters. Run with: java lunarrover.SelfChecks
+ *
+ * @author demi
+ */
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+public final class SelfChecks {
+    private static final long SEED = 42L;
+    private static final int MAX_FAILURES = 10;
+    private static final PedalEvent[] EVENTS = PedalEvent.values();
+
+    private SelfChecks() {}
+
+    public static void main(String[] args) {
+        int failed = 0;
+        for (ScenarioRunner.Result r : runAll()) {
+            System.out.printf("%s %s (%.3f ms)%n", r.passed() ? "PASS" : "FAIL", r.name(), r.nanos() / 1e6);
+            r.failures().forEach(f -> System.out.println("  " + f));
+            if (!r.passed()) {
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    static List<ScenarioRunner.Result> runAll() {
+        return List.of(
+            timed("[check] fleet index matches getter scan", SelfChecks::fleetIndexMatchesScan),
+            timed("[check] isNoOp matches the handlers", SelfChecks::noOpPredictionMatchesHandlers),
+            timed("[check] ingest matches direct delivery of accepted, uncancelled events", SelfChecks::ingestMatchesDirect),
+            timed("[check] mission simulator clock, holds, timers and isolation", SelfChecks::missionSimulator)
+        );
+    }
+
+    private static ScenarioRunner.Result timed(String name, Function<Random, List<String>> check) {
+        long start = System.nanoTime();
+        List<String> failures;
+        try {
+            failures = check.apply(new Random(SEED));
+        } catch (RuntimeException e) {
+            failures = List.of("error: " + e);
+        }
+        return new ScenarioRunner.Result(name, System.nanoTime() - start, failures);
+    }
+
+    // Left pedal is favoured so rovers actually reach high speeds and device modes
+    private static PedalEvent randomEvent(Random rnd) {
+        return rnd.nextInt(3) == 0 ? PedalEvent.LEFT_PRESSED : EVENTS[rnd.nextInt(EVENTS.length)];
+    }
+
+    // ========================================================
+    // FLEET INDEX
+    // ========================================================
+
+    private static List<String> fleetIndexMatchesScan(Random rnd) {
+        List<String> failures = new ArrayList<>();
+        FleetStateIndex index = new FleetStateIndex();
+        for (int i = 0; i < 300; i++) {
+            index.register(new LunarRoverStateMachine());
+        }
+        expectRejected(failures, "registering a rover twice", () -> index.register(index.rover(0)));
+        expectRejected(failures, "DRILL queried with a camera sub state",
+                () -> index.countWithDevice(CameraDrillState.DRILL, CameraSubState.TEMPORIZER_ACTIVE));
+        expectRejected(failures, "IDLE queried as a device",
+                () -> index.idsWithDevice(CameraDrillState.IDLE, DrillSubState.OFF));
+        for (int round = 0; round < 40 && failures.size() < MAX_FAILURES; round++) {
+            for (int e = 0; e < 500; e++) {
+                index.rover(rnd.nextInt(index.size())).processEvent(randomEvent(rnd));
+            }
+            compareFleet(index, failures);
+        }
+        return failures;
+    }
+
+    private static void compareFleet(FleetStateIndex index, List<String> failures) {
+        for (ControlMode v : ControlMode.values()) {
+            compare(index, failures, "ControlMode " + v, index.idsIn(v), index.countIn(v),
+                    r -> r.getControlMode() == v);
+        }
+        for (MovementState v : MovementState.values()) {
+            compare(index, failures, "MovementState " + v, index.idsIn(v), index.countIn(v),
+                    r -> r.getMovementState() == v);
+        }
+        for (CameraDrillState v : CameraDrillState.values()) {
+            compare(index, failures, "CameraDrillState " + v, index.idsIn(v), index.countIn(v),
+                    r -> r.getCameraDrillState() == v);
+        }
+        for (DrillSubState v : DrillSubState.values()) {
+            compare(index, failures, "DrillSubState " + v, index.idsIn(v), index.countIn(v),
+                    r -> r.getDrillSubState() == v);
+            BitSet drilling = index.idsDrilling(v);
+            compare(index, failures, "drilling " + v, drilling, drilling.cardinality(),
+                    r -> r.getCameraDrillState() == CameraDrillState.DRILL && r.getDrillSubState() == v);
+        }
+        for (CameraSubState v : CameraSubState.values()) {
+            compare(index, failures, "color camera " + v, index.idsWithColorCamera(v), index.countWithColorCamera(v),
+                    r -> r.getColorCameraSubState() == v);
+            compare(index, failures, "16mm camera " + v, index.idsWith16mmCamera(v), index.countWith16mmCamera(v),
+                    r -> r.getCamera16mmSubState() == v);
+        }
+        for (CameraDrillState device : CameraDrillState.values()) {
+            if (device.kind == null) {
+                continue;
+            }
+            for (Enum<?> v : device.kind.subStates) {
+                compare(index, failures, device + " " + v,
+                        index.idsWithDevice(device, v), index.countWithDevice(device, v),
+                        r -> r.getDeviceSubState(device) == v);
+            }
+        }
+        BitSet temporizer = index.idsWithTemporizerActive();
+        compare(index, failures, "temporizer active", temporizer, temporizer.cardinality(),
+                r -> r.getColorCameraSubState() == CameraSubState.TEMPORIZER_ACTIVE
+                        || r.getCamera16mmSubState() == CameraSubState.TEMPORIZER_ACTIVE);
+
+        // Bounds off the 10-step grid and outside the speed range as well
+        for (int min = -65; min <= 110; min += 15) {
+            for (int max = min - 5; max <= 115; max += 25) {
+                int lo = min, hi = max;
+                compare(index, failures, "speed in [" + lo + ", " + hi + "]",
+                        index.idsWithSpeedBetween(lo, hi), index.countWithSpeedBetween(lo, hi),
+                        r -> r.getSpeed() >= lo && r.getSpeed() <= hi);
+            }
+            int above = min;
+            compare(index, failures, "speed above " + above,
+                    index.idsWithSpeedAbove(above), index.countWithSpeedAbove(above),
+                    r -> r.getSpeed() > above);
+        }
+    }
+
+    // ========================================================
+    // NO-OP PREDICTION
+    // ========================================================
+
+    // Predicted no-ops must leave every state unchanged and log no action;
+    // anything else must change state or log an action
+    private static List<String> noOpPredictionMatchesHandlers(Random rnd) {
+        List<String> failures = new ArrayList<>();
+        List<String> messages = new ArrayList<>();
+        for (int walk = 0; walk < 500 && failures.size() < MAX_FAILURES; walk++) {
+            LunarRoverStateMachine rover = new LunarRoverStateMachine();
+            rover.addListener(messages::add);
+            for (int step = 0; step < 200 && failures.size() < MAX_FAILURES; step++) {
+                PedalEvent event = randomEvent(rnd);
+                LunarRoverStateMachine before = new LunarRoverStateMachine(rover);
+                boolean predicted = rover.isNoOp(event);
+                messages.clear();
+                rover.processEvent(event);
+                boolean acted = messages.stream().anyMatch(m -> m.startsWith("==>"));
+                boolean unchanged = rover.sameState(before);
+                if (predicted && (!unchanged || acted)) {
+                    failures.add("isNoOp(" + event + ") was true but the event "
+                            + (unchanged ? "logged an action" : "changed state") + ": " + messages);
+                } else if (!predicted && unchanged && !acted) {
+                    failures.add("isNoOp(" + event + ") was false but nothing happened: " + messages);
+                }
+            }
+        }
+        return failures;
+    }
+
+    // ========================================================
+    // EVENT INGEST
+    // ========================================================
+
+    // The rover must take the same actions and end in the same state as
+    // direct delivery of the accepted, uncancelled events in offer order;
+    // cancel listeners must report exactly the latest accepted events
+    private static List<String> ingestMatchesDirect(Random rnd) {
+        List<String> failures = new ArrayList<>();
+        for (int run = 0; run < 500 && failures.size() < MAX_FAILURES; run++) {
+            LunarRoverStateMachine direct = new LunarRoverStateMachine();
+            LunarRoverStateMachine ingested = new LunarRoverStateMachine();
+            EventIngest ingest = new EventIngest(ingested, 1 + rnd.nextInt(8));
+            List<String> directActions = new ArrayList<>();
+            List<String> ingestActions = new ArrayList<>();
+            direct.addListener(m -> { if (m.startsWith("==>")) directActions.add(m); });
+            ingested.addListener(m -> { if (m.startsWith("==>")) ingestActions.add(m); });
+            List<PedalEvent> accepted = new ArrayList<>();
+            List<PedalEvent> cancelled = new ArrayList<>();
+            ingest.addCancelListener(cancelled::add);
+            for (int step = 0; step < 200 && failures.size() < MAX_FAILURES; step++) {
+                if (rnd.nextInt(10) == 0) {
+                    accepted.forEach(direct::processEvent);
+                    accepted.clear();
+                    ingest.drain();
+                    if (!ingested.sameState(direct)) {
+                        failures.add("run " + run + " step " + step + ": ingest reached " + describe(ingested)
+                                + ", direct delivery " + describe(direct));
+                    } else if (!ingestActions.equals(directActions)) {
+                        failures.add("run " + run + " step " + step + ": ingest actions " + ingestActions
+                                + ", direct delivery " + directActions);
+                    }
+                    directActions.clear();
+                    ingestActions.clear();
+                }
+                PedalEvent event = randomEvent(rnd);
+                cancelled.clear();
+                boolean taken = ingest.offer(event);
+                int from = Math.max(0, accepted.size() - cancelled.size());
+                List<PedalEvent> latest = accepted.subList(from, accepted.size());
+                if (!latest.equals(cancelled)) {
+                    failures.add("run " + run + " step " + step + ": " + event + " cancelled " + cancelled
+                            + ", latest accepted " + latest);
+                } else if (!cancelled.isEmpty()) {
+                    LunarRoverStateMachine ahead = new LunarRoverStateMachine(direct);
+                    accepted.forEach(ahead::processEvent);
+                    if (event != PedalEvent.RIGHT_PRESSED || ahead.getControlMode() != ControlMode.MOVEMENT) {
+                        failures.add("run " + run + " step " + step + ": " + event + " in "
+                                + ahead.getControlMode() + " cancelled " + cancelled);
+                    }
+                }
+                latest.clear();
+                if (taken) {
+                    accepted.add(event);
+                }
+            }
+        }
+        return failures;
+    }
+
+    // ========================================================
+    // MISSION SIMULATOR
+    // ========================================================
+
+    private static final long TEMPORIZER_DELAY = 30_000;
+
+    private static List<String> missionSimulator(Random rnd) {
+        List<String> failures = new ArrayList<>();
+        simulatorOrdering(failures);
+        simulatorClock(failures);
+        simulatorHolds(failures);
+        simulatorTemporizer(failures);
+        simulatorIsolation(rnd, failures);
+        return failures;
+    }
+
+    // Events at the same timestamp are delivered in scheduling order
+    private static void simulatorOrdering(List<String> failures) {
+        MissionSimulator sim = new MissionSimulator(TEMPORIZER_DELAY);
+        int pressFirst = sim.addRover(new LunarRoverStateMachine());
+        int brakeFirst = sim.addRover(new LunarRoverStateMachine());
+        sim.schedule(100, pressFirst, PedalEvent.LEFT_PRESSED);
+        sim.schedule(100, brakeFirst, PedalEvent.RIGHT_PRESSED);
+        sim.schedule(100, pressFirst, PedalEvent.RIGHT_PRESSED);
+        sim.schedule(100, brakeFirst, PedalEvent.LEFT_PRESSED);
+        sim.run();
+        expect(failures, "press then brake at one timestamp", describe(sim.rover(pressFirst)),
+                "MOVEMENT/DECELERATING_FORWARD/IDLE speed=0");
+        expect(failures, "brake then press at one timestamp", describe(sim.rover(brakeFirst)),
+                "MOVEMENT/ACCELERATING_FORWARD/IDLE speed=10");
+    }
+
+    private static void simulatorClock(List<String> failures) {
+        MissionSimulator sim = new MissionSimulator(TEMPORIZER_DELAY);
+        int r = sim.addRover(new LunarRoverStateMachine());
+        sim.schedule(500, r, PedalEvent.LEFT_PRESSED);
+        expect(failures, "runUntil before the event delivers", sim.runUntil(200), 0);
+        expect(failures, "clock after runUntil(200)", sim.now(), 200L);
+        expect(failures, "pending after runUntil(200)", sim.pending(), 1);
+        expect(failures, "runUntil at the event delivers", sim.runUntil(500), 1);
+        expect(failures, "speed after runUntil(500)", sim.rover(r).getSpeed(), 10);
+        expect(failures, "runUntil with nothing due delivers", sim.runUntil(900), 0);
+        expect(failures, "clock after runUntil(900)", sim.now(), 900L);
+        expectRejected(failures, "scheduling before the clock", () -> sim.schedule(899, r, PedalEvent.LEFT_PRESSED));
+        expectRejected(failures, "scheduling for an unknown rover", () -> sim.schedule(1000, r + 1, PedalEvent.LEFT_PRESSED));
+    }
+
+    // A left hold must act like the gesture the rover responds to when it is released
+    private static void simulatorHolds(List<String> failures) {
+        PedalEvent[] none = {};
+        PedalEvent[] camera = {PedalEvent.SWITCH_FLIPPED};
+        PedalEvent[] colorCamera = {PedalEvent.SWITCH_FLIPPED, PedalEvent.LEFT_HELD_5S};
+        PedalEvent[] camera16mm = {PedalEvent.SWITCH_FLIPPED, PedalEvent.LEFT_HELD_10S};
+        expectHold(failures, none, 2_000, PedalEvent.LEFT_PRESSED);
+        expectHold(failures, none, 6_000, PedalEvent.LEFT_HELD_3S);
+        expectHold(failures, none, 12_000, PedalEvent.LEFT_HELD_3S);
+        expectHold(failures, camera, 4_000, PedalEvent.LEFT_HELD_3S);
+        expectHold(failures, camera, 7_000, PedalEvent.LEFT_HELD_5S);
+        expectHold(failures, camera, 12_000, PedalEvent.LEFT_HELD_10S);
+        expectHold(failures, colorCamera, 12_000, PedalEvent.LEFT_HELD_5S);
+        expectHold(failures, camera16mm, 6_000, PedalEvent.LEFT_HELD_5S);
+    }
+
+    private static void expectHold(List<String> failures, PedalEvent[] setup, long hold, PedalEvent gesture) {
+        MissionSimulator sim = new MissionSimulator(TEMPORIZER_DELAY);
+        int r = sim.addRover(new LunarRoverStateMachine());
+        LunarRoverStateMachine direct = new LunarRoverStateMachine();
+        for (int i = 0; i < setup.length; i++) {
+            sim.schedule(i, r, setup[i]);
+            direct.processEvent(setup[i]);
+        }
+        sim.scheduleLeftHold(setup.length, r, hold);
+        sim.runUntil(setup.length + hold);
+        direct.processEvent(gesture);
+        if (!sim.rover(r).sameState(direct)) {
+            failures.add(hold + " ms left hold after " + Arrays.toString(setup) + " reached "
+                    + describe(sim.rover(r)) + ", " + gesture + " reaches " + describe(direct));
+        }
+    }
+
+    // TIMER_EXPIRED fires after the configured delay; leaving the temporizer cancels it
+    private static void simulatorTemporizer(List<String> failures) {
+        MissionSimulator sim = new MissionSimulator(TEMPORIZER_DELAY);
+        int r = sim.addRover(new LunarRoverStateMachine());
+        sim.schedule(0, r, PedalEvent.SWITCH_FLIPPED);
+        sim.schedule(1_000, r, PedalEvent.LEFT_HELD_5S);
+        sim.schedule(2_000, r, PedalEvent.LEFT_HELD_5S);
+        sim.runUntil(2_000 + TEMPORIZER_DELAY - 1);
+        expect(failures, "temporizer just before the delay", sim.rover(r).getColorCameraSubState(),
+                CameraSubState.TEMPORIZER_ACTIVE);
+        sim.runUntil(2_000 + TEMPORIZER_DELAY);
+        expect(failures, "temporizer at the delay", sim.rover(r).getColorCameraSubState(), CameraSubState.READY);
+
+        // Exit and re-arm: the first timer is stale and must not end the second
+        long armed = 40_000;
+        sim.schedule(armed, r, PedalEvent.LEFT_HELD_5S);
+        sim.schedule(armed + 1_000, r, PedalEvent.RIGHT_PRESSED);
+        sim.schedule(armed + 2_000, r, PedalEvent.LEFT_HELD_5S);
+        sim.schedule(armed + 3_000, r, PedalEvent.LEFT_HELD_5S);
+        sim.runUntil(armed + 3_000 + TEMPORIZER_DELAY - 1);
+        expect(failures, "re-armed temporizer after the stale expiry", sim.rover(r).getColorCameraSubState(),
+                CameraSubState.TEMPORIZER_ACTIVE);
+        expect(failures, "events delivered for the re-armed timer", sim.run(), 1);
+        expect(failures, "re-armed temporizer at its own delay", sim.rover(r).getColorCameraSubState(),
+                CameraSubState.READY);
+        expect(failures, "clock after the re-armed expiry", sim.now(), armed + 3_000 + TEMPORIZER_DELAY);
+    }
+
+    // Rovers sharing a simulator end exactly where each would alone
+    private static void simulatorIsolation(Random rnd, List<String> failures) {
+        MissionSimulator overlap = new MissionSimulator(TEMPORIZER_DELAY);
+        for (int r = 0; r < 2; r++) {
+            overlap.addRover(new LunarRoverStateMachine());
+            overlap.schedule(0, r, PedalEvent.SWITCH_FLIPPED);
+            overlap.schedule(1_000, r, PedalEvent.LEFT_HELD_5S);
+            overlap.schedule(2_000 + r * 1_000, r, PedalEvent.LEFT_HELD_5S);
+        }
+        overlap.run();
+        for (int r = 0; r < 2; r++) {
+            expect(failures, "overlapping temporizer of rover " + r, overlap.rover(r).getColorCameraSubState(),
+                    CameraSubState.READY);
+        }
+
+        int fleet = 8;
+        MissionSimulator shared = new MissionSimulator(TEMPORIZER_DELAY);
+        MissionSimulator[] alone = new MissionSimulator[fleet];
+        for (int r = 0; r < fleet; r++) {
+            shared.addRover(new LunarRoverStateMachine());
+            alone[r] = new MissionSimulator(TEMPORIZER_DELAY);
+            alone[r].addRover(new LunarRoverStateMachine());
+        }
+        for (int i = 0; i < 4_000; i++) {
+            int r = rnd.nextInt(fleet);
+            long at = rnd.nextInt(600_000);
+            if (rnd.nextInt(4) == 0) {
+                long hold = rnd.nextInt(15_000);
+                shared.scheduleLeftHold(at, r, hold);
+                alone[r].scheduleLeftHold(at, 0, hold);
+            } else {
+                PedalEvent event = randomEvent(rnd);
+                shared.schedule(at, r, event);
+                alone[r].schedule(at, 0, event);
+            }
+        }
+        for (long until : new long[] {300_000, Long.MAX_VALUE}) {
+            shared.runUntil(until);
+            for (int r = 0; r < fleet && failures.size() < MAX_FAILURES; r++) {
+                alone[r].runUntil(until);
+                if (!shared.rover(r).sameState(alone[r].rover(0))) {
+                    failures.add("rover " + r + " at " + until + ": shared simulator reached "
+                            + describe(shared.rover(r)) + ", alone " + describe(alone[r].rover(0)));
+                }
+            }
+        }
+    }
+
+    private static void expect(List<String> failures, String what, Object actual, Object expected) {
+        if (!Objects.equals(actual, expected)) {
+            failures.add(what + ": expected " + expected + ", got " + actual);
+        }
+    }
+
+    private static String describe(LunarRoverStateMachine r) {
+        return r.getControlMode() + "/" + r.getMovementState() + "/" + r.getCameraDrillState()
+                + " speed=" + r.getSpeed();
+    }
+
+    private static void expectRejected(List<String> failures, String what, Runnable call) {
+        try {
+            call.run();
+            failures.add(what + " was accepted");
+        } catch (IllegalArgumentException expected) {
+            // rejected as documented
+        } catch (RuntimeException e) {
+            failures.add(what + " threw " + e + " instead of IllegalArgumentException");
+        }
+    }
+
+    private static void compare(FleetStateIndex index, List<String> failures, String query,
+                                BitSet ids, int count, Predicate<LunarRoverStateMachine> scan) {
+        BitSet expected = new BitSet();
+        for (int id = 0; id < index.size(); id++) {
+            if (scan.test(index.rover(id))) {
+                expected.set(id);
+            }
+        }
+        if (failures.size() < MAX_FAILURES && (!expected.equals(ids) || expected.cardinality() != count)) {
+            BitSet extra = (BitSet) ids.clone();
+            extra.andNot(expected);
+            BitSet missing = (BitSet) expected.clone();
+            missing.andNot(ids);
+            failures.add(query + ": index-only " + extra + ", scan-only " + missing
+                    + ", count " + count + " vs " + expected.cardinality());
+        }
+    }
+}